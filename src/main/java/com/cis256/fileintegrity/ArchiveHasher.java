@@ -0,0 +1,490 @@
+package com.cis256.fileintegrity;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Utility class for computing SHA-256 hashes of the entries inside an archive.
+ *
+ * Supported containers:
+ * - ZIP and JAR: entries are located through the central directory, so each entry
+ *   is read directly from its offset and the entries are hashed in parallel
+ * - TAR: the archive is streamed once from start to end, hashing each entry as it
+ *   passes and the whole container at the same time
+ *
+ * Nothing is ever extracted to disk; every entry is hashed straight from the archive.
+ * The hash of the whole container never depends on its entries being readable, so a
+ * damaged or tampered archive is still reported as modified.
+ */
+public class ArchiveHasher {
+
+    private static final String HASH_ALGORITHM = "SHA-256";
+
+    // TAR archives are made of 512-byte blocks
+    private static final int TAR_BLOCK_SIZE = 512;
+
+    private static final int BUFFER_SIZE = 8192;
+
+    // Largest GNU long name or PAX header entry read into memory (1 MB)
+    private static final int MAX_METADATA_SIZE = 1024 * 1024;
+
+    /**
+     * Checks if a file is an archive whose entries can be hashed individually.
+     *
+     * @param filePath The path to the file
+     * @return true if the file is a .zip, .jar or .tar file, false otherwise
+     */
+    public static boolean isArchive(String filePath) {
+        return isZipArchive(filePath) || isTarArchive(filePath);
+    }
+
+    private static boolean isZipArchive(String filePath) {
+        String name = filePath.toLowerCase(Locale.ROOT);
+        return name.endsWith(".zip") || name.endsWith(".jar");
+    }
+
+    private static boolean isTarArchive(String filePath) {
+        return filePath.toLowerCase(Locale.ROOT).endsWith(".tar");
+    }
+
+    /**
+     * Computes the SHA-256 hash of every file entry inside an archive.
+     *
+     * @param filePath The path to the archive
+     * @return Map of entry name to SHA-256 hash, sorted by entry name
+     * @throws IOException If the archive cannot be read or is malformed
+     * @throws NoSuchAlgorithmException If SHA-256 is not available
+     */
+    public static Map<String, String> computeEntryHashes(String filePath) throws IOException, NoSuchAlgorithmException {
+        if (isZipArchive(filePath)) {
+            return computeZipEntryHashes(filePath);
+        }
+        if (isTarArchive(filePath)) {
+            try (InputStream in = new BufferedInputStream(Files.newInputStream(Paths.get(filePath)), BUFFER_SIZE)) {
+                return readTarEntries(in);
+            }
+        }
+        throw new IOException("Unsupported archive type: " + filePath);
+    }
+
+    /**
+     * Computes the container hash and the per-entry hashes of an archive.
+     * TAR archives are read only once. ZIP archives take two passes: one streaming
+     * pass for the container hash, then random access to each entry through the
+     * central directory (which is what lets the entries be hashed in parallel).
+     * Neither pass loads the whole archive into memory.
+     *
+     * If the entries cannot be parsed (e.g. a truncated or corrupted archive), the
+     * container hash is still returned and the entry hashes are reported as unavailable.
+     *
+     * @param filePath The path to the archive
+     * @return The container hash, and the entry hashes if they could be read
+     * @throws IOException If the file itself cannot be read
+     * @throws NoSuchAlgorithmException If SHA-256 is not available
+     */
+    public static ArchiveDigest computeArchiveHashes(String filePath) throws IOException, NoSuchAlgorithmException {
+        MessageDigest containerDigest = MessageDigest.getInstance(HASH_ALGORITHM);
+
+        if (isTarArchive(filePath)) {
+            try (InputStream in = new DigestInputStream(
+                    new BufferedInputStream(Files.newInputStream(Paths.get(filePath)), BUFFER_SIZE), containerDigest)) {
+                Map<String, String> entryHashes = null;
+                String entryError = null;
+                try {
+                    entryHashes = readTarEntries(in);
+                } catch (IOException e) {
+                    entryError = e.getMessage();
+                }
+                // Drain the rest so the container hash covers the whole file; a read error here is real
+                byte[] buffer = new byte[BUFFER_SIZE];
+                while (in.read(buffer) >= 0) {
+                    // Bytes are consumed by the DigestInputStream
+                }
+                return new ArchiveDigest(HashUtility.bytesToHex(containerDigest.digest()), entryHashes, entryError);
+            }
+        }
+
+        String hash;
+        try (InputStream in = Files.newInputStream(Paths.get(filePath))) {
+            hash = hashStream(in);
+        }
+        try {
+            return new ArchiveDigest(hash, computeEntryHashes(filePath), null);
+        } catch (IOException | IllegalArgumentException e) {
+            // ZipFile reports a malformed entry name as IllegalArgumentException on some JDKs
+            return new ArchiveDigest(hash, null, e.getMessage());
+        }
+    }
+
+    /**
+     * Hashes ZIP/JAR entries in parallel. ZipFile uses the central directory to
+     * find each entry, so entries can be read independently of each other.
+     */
+    private static Map<String, String> computeZipEntryHashes(String filePath) throws IOException, NoSuchAlgorithmException {
+        // Fail early on the calling thread rather than inside the parallel stream
+        MessageDigest.getInstance(HASH_ALGORITHM);
+
+        Map<String, String> hashes = new ConcurrentHashMap<>();
+        try (ZipFile zipFile = new ZipFile(filePath)) {
+            List<? extends ZipEntry> entries = Collections.list(zipFile.entries());
+            try {
+                entries.parallelStream()
+                        .filter(entry -> !entry.isDirectory())
+                        .forEach(entry -> {
+                            try (InputStream in = zipFile.getInputStream(entry)) {
+                                hashes.put(entry.getName(), hashStream(in));
+                            } catch (IOException e) {
+                                throw new ArchiveReadException(e);
+                            }
+                        });
+            } catch (ArchiveReadException e) {
+                throw e.getCause();
+            }
+        }
+        return new TreeMap<>(hashes);
+    }
+
+    /**
+     * Reads a TAR stream from its current position, hashing each regular file entry.
+     * Stops at the end-of-archive marker without reading the rest of the stream.
+     */
+    static Map<String, String> readTarEntries(InputStream in) throws IOException, NoSuchAlgorithmException {
+        Map<String, String> hashes = new TreeMap<>();
+        byte[] header = new byte[TAR_BLOCK_SIZE];
+        String longName = null;
+        // PAX extended headers: 'g' applies to every following entry, 'x' to the next one only
+        Map<String, String> globalPaxHeaders = new HashMap<>();
+        Map<String, String> paxHeaders = new HashMap<>();
+
+        while (readBlock(in, header)) {
+            // Two zero blocks mark the end of the archive
+            if (isZeroBlock(header)) {
+                break;
+            }
+
+            String name = parseName(header);
+            long size = parseNumber(header, 124, 12);
+            char type = (char) header[156];
+
+            if (type == 'L' || type == 'x' || type == 'g') {
+                // Metadata entries: their data describes the next entry (or all of them for 'g')
+                byte[] data = readMetadata(in, size);
+                skipFully(in, padding(size));
+                if (type == 'L') {
+                    longName = trimNul(data, 0, data.length);
+                } else {
+                    parsePaxHeaders(data, type == 'g' ? globalPaxHeaders : paxHeaders);
+                }
+                continue;
+            }
+
+            if (longName != null) {
+                name = longName;
+                longName = null;
+            }
+
+            Map<String, String> headers = new HashMap<>(globalPaxHeaders);
+            headers.putAll(paxHeaders);
+            paxHeaders.clear();
+            if (headers.containsKey("path")) {
+                name = headers.get("path");
+            }
+            if (headers.containsKey("size")) {
+                try {
+                    size = Long.parseLong(headers.get("size"));
+                } catch (NumberFormatException e) {
+                    throw new IOException("Invalid PAX size: " + headers.get("size"));
+                }
+                if (size < 0) {
+                    throw new IOException("Negative PAX size: " + size);
+                }
+            }
+            long padding = padding(size);
+
+            // '0', NUL and '7' (contiguous file) are regular files; everything else has no content to hash
+            if (type == '0' || type == '\0' || type == '7') {
+                MessageDigest digest = MessageDigest.getInstance(HASH_ALGORITHM);
+                byte[] buffer = new byte[BUFFER_SIZE];
+                long remaining = size;
+                while (remaining > 0) {
+                    int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                    if (read < 0) {
+                        throw new EOFException("Truncated TAR entry: " + name);
+                    }
+                    digest.update(buffer, 0, read);
+                    remaining -= read;
+                }
+                hashes.put(name, HashUtility.bytesToHex(digest.digest()));
+            } else {
+                skipFully(in, size);
+            }
+            skipFully(in, padding);
+        }
+        return hashes;
+    }
+
+    /**
+     * Compares stored entry hashes against current entry hashes.
+     *
+     * @param storedHashes Entry hashes recorded earlier
+     * @param currentHashes Entry hashes computed now
+     * @return List of changes ("MODIFIED: name", "ADDED: name", "REMOVED: name"), empty if none
+     */
+    public static List<String> findChangedEntries(Map<String, String> storedHashes, Map<String, String> currentHashes) {
+        List<String> changes = new ArrayList<>();
+
+        for (Map.Entry<String, String> entry : new TreeMap<>(currentHashes).entrySet()) {
+            String storedHash = storedHashes.get(entry.getKey());
+            if (storedHash == null) {
+                changes.add("ADDED: " + entry.getKey());
+            } else if (!HashUtility.compareHashes(storedHash, entry.getValue())) {
+                changes.add("MODIFIED: " + entry.getKey());
+            }
+        }
+
+        for (String name : new TreeMap<>(storedHashes).keySet()) {
+            if (!currentHashes.containsKey(name)) {
+                changes.add("REMOVED: " + name);
+            }
+        }
+
+        return changes;
+    }
+
+    private static String hashStream(InputStream in) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance(HASH_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            // Already checked by the caller
+            throw new IllegalStateException(e);
+        }
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int read;
+        while ((read = in.read(buffer)) >= 0) {
+            digest.update(buffer, 0, read);
+        }
+        return HashUtility.bytesToHex(digest.digest());
+    }
+
+    private static boolean readBlock(InputStream in, byte[] block) throws IOException {
+        int offset = 0;
+        while (offset < block.length) {
+            int read = in.read(block, offset, block.length - offset);
+            if (read < 0) {
+                if (offset == 0) {
+                    return false;
+                }
+                throw new EOFException("Truncated TAR header");
+            }
+            offset += read;
+        }
+        return true;
+    }
+
+    private static byte[] readMetadata(InputStream in, long size) throws IOException {
+        if (size > MAX_METADATA_SIZE) {
+            throw new IOException("TAR metadata entry too large: " + size);
+        }
+        byte[] data = in.readNBytes((int) size);
+        if (data.length < size) {
+            throw new EOFException("Truncated TAR entry");
+        }
+        return data;
+    }
+
+    private static void skipFully(InputStream in, long count) throws IOException {
+        // Read instead of skip() so a DigestInputStream still sees every byte
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long remaining = count;
+        while (remaining > 0) {
+            int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+            if (read < 0) {
+                throw new EOFException("Truncated TAR archive");
+            }
+            remaining -= read;
+        }
+    }
+
+    private static boolean isZeroBlock(byte[] block) {
+        for (byte b : block) {
+            if (b != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long padding(long size) {
+        return (TAR_BLOCK_SIZE - (size % TAR_BLOCK_SIZE)) % TAR_BLOCK_SIZE;
+    }
+
+    /**
+     * Parses PAX extended header records ("<length> <key>=<value>\n") into a map.
+     */
+    private static void parsePaxHeaders(byte[] data, Map<String, String> headers) throws IOException {
+        int pos = 0;
+        while (pos < data.length && data[pos] != 0) {
+            int space = pos;
+            while (space < data.length && data[space] != ' ') {
+                space++;
+            }
+            int length;
+            try {
+                length = Integer.parseInt(new String(data, pos, space - pos, StandardCharsets.US_ASCII));
+            } catch (NumberFormatException e) {
+                throw new IOException("Invalid PAX header record");
+            }
+            int end = pos + length;
+            // The shortest record is "<length> =\n"
+            if (length <= 0 || end > data.length || space + 2 >= end) {
+                throw new IOException("Invalid PAX header record");
+            }
+            // The record is "key=value" followed by a newline
+            String record = new String(data, space + 1, end - space - 2, StandardCharsets.UTF_8);
+            int eq = record.indexOf('=');
+            if (eq > 0) {
+                headers.put(record.substring(0, eq), record.substring(eq + 1));
+            }
+            pos = end;
+        }
+    }
+
+    /**
+     * Reads the entry name, joining the prefix field for POSIX ustar headers.
+     * Old GNU headers ("ustar  ") use the prefix area for other fields, so it is ignored there.
+     */
+    private static String parseName(byte[] header) {
+        String name = trimNul(header, 0, 100);
+        boolean ustar = new String(header, 257, 5, StandardCharsets.US_ASCII).equals("ustar") && header[262] == 0;
+        if (ustar) {
+            String prefix = trimNul(header, 345, 155);
+            if (!prefix.isEmpty()) {
+                return prefix + "/" + name;
+            }
+        }
+        return name;
+    }
+
+    /**
+     * Reads a numeric header field, either octal text or GNU base-256 binary
+     * (high bit of the first byte set) used for sizes of 8 GB and above.
+     */
+    private static long parseNumber(byte[] header, int offset, int length) throws IOException {
+        if ((header[offset] & 0x80) != 0) {
+            if ((header[offset] & 0x40) != 0) {
+                throw new IOException("Negative TAR header field");
+            }
+            long result = header[offset] & 0x3F;
+            for (int i = offset + 1; i < offset + length; i++) {
+                if ((result >>> 55) != 0) {
+                    throw new IOException("TAR header field too large");
+                }
+                result = (result << 8) | (header[i] & 0xFF);
+            }
+            return result;
+        }
+
+        String value = trimNul(header, offset, length).trim();
+        if (value.isEmpty()) {
+            return 0;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            // Long.parseLong would also accept a sign, e.g. "-0000000001"
+            if (value.charAt(i) < '0' || value.charAt(i) > '7') {
+                throw new IOException("Invalid TAR header field: " + value);
+            }
+        }
+        try {
+            return Long.parseLong(value, 8);
+        } catch (NumberFormatException e) {
+            throw new IOException("TAR header field too large: " + value);
+        }
+    }
+
+    private static String trimNul(byte[] bytes, int offset, int length) {
+        int end = offset;
+        while (end < offset + length && bytes[end] != 0) {
+            end++;
+        }
+        return new String(bytes, offset, end - offset, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Carries an IOException out of the parallel stream used for ZIP entries.
+     */
+    private static class ArchiveReadException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        ArchiveReadException(IOException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized IOException getCause() {
+            return (IOException) super.getCause();
+        }
+    }
+
+    /**
+     * Result of hashing an archive: the hash of the whole file, plus the hash of
+     * each entry when the archive could be parsed.
+     */
+    public static final class ArchiveDigest {
+        private final String hash;
+        private final Map<String, String> entryHashes;
+        private final String entryError;
+
+        ArchiveDigest(String hash, Map<String, String> entryHashes, String entryError) {
+            this.hash = hash;
+            this.entryHashes = entryHashes;
+            this.entryError = entryError;
+        }
+
+        /**
+         * Gets the SHA-256 hash of the whole archive file
+         *
+         * @return The container hash
+         */
+        public String getHash() {
+            return hash;
+        }
+
+        /**
+         * Gets the SHA-256 hash of each entry, sorted by entry name
+         *
+         * @return Map of entry name to hash, or null if the entries could not be read
+         */
+        public Map<String, String> getEntryHashes() {
+            return entryHashes;
+        }
+
+        /**
+         * Gets the reason the entries could not be read
+         *
+         * @return The error message, or null if the entry hashes are available
+         */
+        public String getEntryError() {
+            return entryError;
+        }
+    }
+}
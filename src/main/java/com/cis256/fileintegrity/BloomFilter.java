@@ -0,0 +1,179 @@
+package com.cis256.fileintegrity;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+
+/**
+ * A Bloom filter over strings, used to answer "definitely not stored" quickly.
+ *
+ * A Bloom filter is a bit array plus k hash functions:
+ * - put() sets the k bits chosen by the hashes of the value
+ * - mightContain() checks those k bits; if any is 0 the value was never added
+ * - It can return false positives (all k bits set by other values) but never false negatives
+ * - Values cannot be removed, since a bit may be shared by several values
+ *
+ * The array size and number of hashes are chosen from the expected number of values
+ * and the desired false positive rate.
+ */
+public class BloomFilter implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long[] bits;
+    private final int numBits;
+    private final int numHashes;
+    private final int expectedInsertions;
+    private final double falsePositiveRate;
+    private int insertionCount;
+
+    /**
+     * Creates an empty Bloom filter.
+     *
+     * @param expectedInsertions How many values the filter is sized for
+     * @param falsePositiveRate Desired false positive rate once full, e.g. 0.01 for 1%
+     */
+    public BloomFilter(int expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions <= 0) {
+            throw new IllegalArgumentException("expectedInsertions must be positive: " + expectedInsertions);
+        }
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("falsePositiveRate must be between 0 and 1: " + falsePositiveRate);
+        }
+
+        // Optimal sizes: m = -n ln(p) / (ln 2)^2 bits, k = (m / n) ln 2 hashes
+        double ln2 = Math.log(2);
+        long optimalBits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (ln2 * ln2));
+        this.numBits = (int) Math.min(Math.max(optimalBits, 64), Integer.MAX_VALUE - 63);
+        this.numHashes = Math.max(1, (int) Math.round((double) numBits / expectedInsertions * ln2));
+        this.bits = new long[(numBits + 63) / 64];
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+    }
+
+    /**
+     * Adds a value to the filter.
+     *
+     * @param value The value to add
+     */
+    public void put(String value) {
+        long hash1 = hash(value);
+        long hash2 = mix(hash1 ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < numHashes; i++) {
+            int index = bitIndex(hash1 + i * hash2);
+            bits[index >>> 6] |= 1L << index;
+        }
+        insertionCount++;
+    }
+
+    /**
+     * Checks if a value might have been added.
+     *
+     * @param value The value to check
+     * @return false if the value was definitely never added, true if it probably was
+     */
+    public boolean mightContain(String value) {
+        long hash1 = hash(value);
+        long hash2 = mix(hash1 ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < numHashes; i++) {
+            int index = bitIndex(hash1 + i * hash2);
+            if ((bits[index >>> 6] & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks if more values have been added than the filter was sized for,
+     * meaning the false positive rate is now above the target.
+     *
+     * @return true if the filter should be rebuilt with a larger size
+     */
+    public boolean isOverCapacity() {
+        return insertionCount > expectedInsertions;
+    }
+
+    /**
+     * Gets the number of values added (including repeated values)
+     *
+     * @return The insertion count
+     */
+    public int getInsertionCount() {
+        return insertionCount;
+    }
+
+    /**
+     * Gets the number of values the filter was sized for
+     *
+     * @return The expected number of insertions
+     */
+    public int getExpectedInsertions() {
+        return expectedInsertions;
+    }
+
+    /**
+     * Gets the false positive rate the filter was sized for
+     *
+     * @return The target false positive rate
+     */
+    public double getFalsePositiveRate() {
+        return falsePositiveRate;
+    }
+
+    /**
+     * Gets the size of the bit array
+     *
+     * @return The number of bits
+     */
+    public int getBitCount() {
+        return numBits;
+    }
+
+    /**
+     * Checks a deserialized filter, so a corrupt file is rejected on load instead
+     * of making every lookup fail
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        if (numBits <= 0 || numHashes <= 0 || expectedInsertions <= 0 || insertionCount < 0) {
+            throw new InvalidObjectException("Invalid Bloom filter sizes");
+        }
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new InvalidObjectException("Invalid Bloom filter false positive rate: " + falsePositiveRate);
+        }
+        if (bits == null || bits.length != (numBits + 63) / 64) {
+            throw new InvalidObjectException("Bloom filter bit array does not match its size");
+        }
+    }
+
+    private int bitIndex(long combinedHash) {
+        return (int) ((combinedHash & Long.MAX_VALUE) % numBits);
+    }
+
+    /**
+     * 64-bit FNV-1a hash of the string's characters, finished with a mixing step
+     * so that similar strings (e.g. paths in the same folder) spread out evenly.
+     */
+    private static long hash(String value) {
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001B3L;
+        }
+        return mix(hash);
+    }
+
+    /**
+     * Final mixing step of MurmurHash3 (fmix64).
+     */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
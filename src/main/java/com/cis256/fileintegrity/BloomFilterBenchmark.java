@@ -0,0 +1,156 @@
+package com.cis256.fileintegrity;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Benchmark of "is this file known?" lookups through HashManager, with and without
+ * its optional Bloom filter. Most queries are misses, as when new files are checked.
+ * Use it to decide whether enabling the filter (new HashManager(falsePositiveRate))
+ * pays off for a given table size.
+ *
+ * Usage: BloomFilterBenchmark [entries] [falsePositiveRate]
+ * Example: BloomFilterBenchmark 100000 0.01
+ *
+ * The HashManagers store their files in temporary folders, so file_hashes.dat in
+ * the working directory is not touched.
+ */
+public class BloomFilterBenchmark {
+
+    // Fraction of queries that ask for something that is stored
+    private static final double HIT_RATIO = 0.1;
+
+    private static final int QUERIES = 2_000_000;
+
+    // Timed rounds per measurement; the last one is reported, the others warm up the JIT
+    private static final int ROUNDS = 3;
+
+    // Startup is timed this many times and the median is reported
+    private static final int STARTUP_RUNS = 5;
+
+    public static void main(String[] args) throws Exception {
+        int entries = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        double falsePositiveRate = args.length > 1 ? Double.parseDouble(args[1]) : HashManager.DEFAULT_FALSE_POSITIVE_RATE;
+        if (entries <= 0) {
+            throw new IllegalArgumentException("entries must be positive: " + entries);
+        }
+        Random random = new Random(256);
+
+        HashMap<String, String> table = new HashMap<>();
+        String[] storedPaths = new String[entries];
+        for (int i = 0; i < entries; i++) {
+            storedPaths[i] = "/home/user/projects/files/folder" + (i % 100) + "/file" + i + ".dat";
+            table.put(storedPaths[i], randomHash(random));
+        }
+
+        Path withDirectory = Files.createTempDirectory("bloom-benchmark");
+        Path withoutDirectory = Files.createTempDirectory("bloom-benchmark");
+        try {
+            HashManager withFilter = new HashManager(withDirectory, falsePositiveRate);
+            HashManager withoutFilter = new HashManager(withoutDirectory);
+            withFilter.storeHashes(table);
+            withoutFilter.storeHashes(table);
+
+            System.out.printf("Entries: %d, target false positive rate: %.4f%n%n", entries, falsePositiveRate);
+
+            // Startup: no filter, loading the saved filter, and rebuilding it from the table
+            Path filterFile = withDirectory.resolve("lookup_filters.dat");
+            Path savedFilterFile = withDirectory.resolve("lookup_filters.saved");
+            Files.copy(filterFile, savedFilterFile);
+            long[] loadWithoutFilter = new long[STARTUP_RUNS];
+            long[] loadWithSavedFilter = new long[STARTUP_RUNS];
+            long[] loadRebuildingFilter = new long[STARTUP_RUNS];
+            for (int i = 0; i < STARTUP_RUNS; i++) {
+                long start = System.nanoTime();
+                new HashManager(withoutDirectory);
+                loadWithoutFilter[i] = System.nanoTime() - start;
+
+                Files.copy(savedFilterFile, filterFile, StandardCopyOption.REPLACE_EXISTING);
+                start = System.nanoTime();
+                new HashManager(withDirectory, falsePositiveRate);
+                loadWithSavedFilter[i] = System.nanoTime() - start;
+
+                Files.delete(filterFile);
+                start = System.nanoTime();
+                new HashManager(withDirectory, falsePositiveRate);
+                loadRebuildingFilter[i] = System.nanoTime() - start;
+            }
+            System.out.println("HashManager startup (median of " + STARTUP_RUNS + "):");
+            System.out.printf("  without filter:      %.2f ms%n", median(loadWithoutFilter) / 1_000_000.0);
+            System.out.printf("  with saved filter:   %.2f ms%n", median(loadWithSavedFilter) / 1_000_000.0);
+            System.out.printf("  rebuilding filter:   %.2f ms%n%n", median(loadRebuildingFilter) / 1_000_000.0);
+
+            String[] paths = new String[QUERIES];
+            for (int i = 0; i < QUERIES; i++) {
+                paths[i] = random.nextDouble() < HIT_RATIO
+                        ? storedPaths[random.nextInt(entries)]
+                        : "/home/user/downloads/new" + random.nextInt(Integer.MAX_VALUE) + ".dat";
+            }
+
+            System.out.println("isFileRecognized (" + QUERIES + " queries):");
+            int found = 0;
+            int foundFiltered = 0;
+            long withoutTime = 0;
+            long withTime = 0;
+            for (int round = 0; round < ROUNDS; round++) {
+                long start = System.nanoTime();
+                found = 0;
+                for (String path : paths) {
+                    if (withoutFilter.isFileRecognized(path)) {
+                        found++;
+                    }
+                }
+                withoutTime = System.nanoTime() - start;
+
+                long filteredStart = System.nanoTime();
+                foundFiltered = 0;
+                for (String path : paths) {
+                    if (withFilter.isFileRecognized(path)) {
+                        foundFiltered++;
+                    }
+                }
+                withTime = System.nanoTime() - filteredStart;
+            }
+            printResult(found, foundFiltered, withoutTime, withTime);
+        } finally {
+            deleteDirectory(withDirectory);
+            deleteDirectory(withoutDirectory);
+        }
+    }
+
+    private static void printResult(int found, int foundFiltered, long withoutFilterNanos, long withFilterNanos) {
+        if (found != foundFiltered) {
+            throw new IllegalStateException("Filter changed the result (" + found + " vs " + foundFiltered + ")");
+        }
+        System.out.println("  found: " + found);
+        System.out.printf("  without filter: %,.0f lookups/second%n", QUERIES / (withoutFilterNanos / 1_000_000_000.0));
+        System.out.printf("  with filter:    %,.0f lookups/second%n%n", QUERIES / (withFilterNanos / 1_000_000_000.0));
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    private static String randomHash(Random random) {
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        return HashUtility.bytesToHex(bytes);
+    }
+
+    private static void deleteDirectory(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+}
@@ -12,6 +12,8 @@ import javafx.stage.Stage;
 import java.io.File;
 import java.io.IOException;
 import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Main JavaFX Application for File Integrity Checker
@@ -26,6 +28,9 @@ public class FileIntegrityChecker extends Application {
     private Stage primaryStage;
     private HashManager hashManager;
     
+    // Entry hashes of the archive currently selected in the Integrity Checker tab (null if not an archive)
+    private Map<String, String> currentEntryHashes;
+    
     @Override
     public void start(Stage primaryStage) {
         this.primaryStage = primaryStage;
@@ -152,8 +157,18 @@ public class FileIntegrityChecker extends Application {
                 storedHashArea.setVisible(false);
                 
                 try {
-                    // Compute current hash
-                    String currentHash = HashUtility.computeFileHash(filePath);
+                    // Compute current hash (and per-entry hashes for ZIP/JAR/TAR archives)
+                    String currentHash;
+                    String entryError = null;
+                    if (ArchiveHasher.isArchive(filePath)) {
+                        ArchiveHasher.ArchiveDigest archiveDigest = ArchiveHasher.computeArchiveHashes(filePath);
+                        currentHash = archiveDigest.getHash();
+                        currentEntryHashes = archiveDigest.getEntryHashes();
+                        entryError = archiveDigest.getEntryError();
+                    } else {
+                        currentEntryHashes = null;
+                        currentHash = HashUtility.computeFileHash(filePath);
+                    }
                     currentHashArea.setText(currentHash);
                     
                     // Check if file is recognized in hash table
@@ -167,17 +182,34 @@ public class FileIntegrityChecker extends Application {
                         statusLabel.setText("Status: File is RECOGNIZED in HashTable");
                         statusLabel.setTextFill(Color.BLUE);
                         
+                        Map<String, String> storedEntryHashes = hashManager.getStoredEntryHashes(filePath);
+                        
                         if (HashUtility.compareHashes(currentHash, storedHash)) {
                             resultLabel.setText("✓ FILE INTEGRITY VERIFIED!\nThe file matches the stored hash. No modifications detected.");
                             resultLabel.setTextFill(Color.GREEN);
+                            
+                            // Archive registered before entry hashing existed - record its entries now
+                            if (currentEntryHashes != null && storedEntryHashes == null) {
+                                hashManager.storeEntryHashes(filePath, currentEntryHashes);
+                            }
                         } else {
-                            resultLabel.setText("⚠ WARNING: FILE HAS BEEN MODIFIED!\nThe current hash does NOT match the stored hash.");
+                            String message = "⚠ WARNING: FILE HAS BEEN MODIFIED!\nThe current hash does NOT match the stored hash.";
+                            if (currentEntryHashes != null && storedEntryHashes != null) {
+                                message += "\n" + describeChangedEntries(
+                                    ArchiveHasher.findChangedEntries(storedEntryHashes, currentEntryHashes));
+                            } else if (entryError != null) {
+                                message += "\nThe archive's entries could not be read: " + entryError;
+                            }
+                            resultLabel.setText(message);
                             resultLabel.setTextFill(Color.RED);
                             updateHashBtn.setVisible(true);
                         }
                     } else {
                         // File is NOT in hash table - save it
                         hashManager.storeHash(filePath, currentHash);
+                        if (currentEntryHashes != null) {
+                            hashManager.storeEntryHashes(filePath, currentEntryHashes);
+                        }
                         statusLabel.setText("Status: File is NEW - Hash saved to HashTable");
                         statusLabel.setTextFill(Color.ORANGE);
                         resultLabel.setText("✓ NEW FILE REGISTERED!\nThis file has been added to the HashTable.\nFuture checks will verify against this hash.");
@@ -205,6 +237,8 @@ public class FileIntegrityChecker extends Application {
             confirm.showAndWait().ifPresent(response -> {
                 if (response == ButtonType.OK) {
                     hashManager.updateHash(filePath, newHash);
+                    // Null drops entry hashes that no longer match the archive
+                    hashManager.storeEntryHashes(filePath, currentEntryHashes);
                     storedHashArea.setText(newHash);
                     resultLabel.setText("✓ HASH UPDATED!\nThe HashTable now stores the new hash for this file.");
                     resultLabel.setTextFill(Color.GREEN);
@@ -246,6 +280,7 @@ public class FileIntegrityChecker extends Application {
                     resultLabel.setTextFill(Color.GRAY);
                     filePathField.clear();
                     currentHashArea.clear();
+                    currentEntryHashes = null;
                     storedHashArea.clear();
                     statusLabel.setText("");
                     storedHashLabel.setVisible(false);
@@ -426,6 +461,26 @@ public class FileIntegrityChecker extends Application {
         return container;
     }
     
+    /**
+     * Builds a short summary of the entries that changed inside an archive
+     */
+    private String describeChangedEntries(List<String> changes) {
+        if (changes.isEmpty()) {
+            return "No entry contents changed (archive metadata only).";
+        }
+        
+        // Keep the label readable for archives with many changed entries
+        int shown = Math.min(changes.size(), 10);
+        StringBuilder sb = new StringBuilder("Changed entries (" + changes.size() + "):");
+        for (int i = 0; i < shown; i++) {
+            sb.append("\n  ").append(changes.get(i));
+        }
+        if (changes.size() > shown) {
+            sb.append("\n  ... and ").append(changes.size() - shown).append(" more");
+        }
+        return sb.toString();
+    }
+    
     /**
      * Shows an error dialog
      */
@@ -0,0 +1,227 @@
+package com.cis256.fileintegrity;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Load-test harness for HashCheckServer. Sends GET requests over keep-alive
+ * connections and prints throughput and latency percentiles.
+ *
+ * Two modes:
+ * - Closed loop (default): a fixed number of workers each send their next request as
+ *   soon as the previous one is answered. Shows the highest rate the server reaches,
+ *   but the latencies hide queueing, since a slow answer also delays the next send.
+ * - Open loop (--rate): requests are sent on a fixed schedule whatever the server does,
+ *   and each latency is measured from the request's scheduled send time. This is the
+ *   mode to use for "p99 latency at N requests/second".
+ *
+ * Usage:
+ *   HashCheckLoadTest &lt;baseUrl&gt; &lt;lookup|verify&gt; &lt;requests&gt; &lt;concurrency&gt; &lt;path&gt; [path...]
+ *   HashCheckLoadTest --rate &lt;requestsPerSecond&gt; &lt;baseUrl&gt; &lt;lookup|verify&gt; &lt;requests&gt; &lt;path&gt; [path...]
+ * Example: HashCheckLoadTest --rate 2000 http://localhost:8256 verify 60000 /data/app.jar
+ *
+ * The paths are requested round-robin, so repeating a small set of paths also
+ * exercises the sharing of overlapping verifications.
+ */
+public class HashCheckLoadTest {
+
+    private static final String USAGE =
+            "Usage: HashCheckLoadTest <baseUrl> <lookup|verify> <requests> <concurrency> <path> [path...]\n"
+            + "       HashCheckLoadTest --rate <requestsPerSecond> <baseUrl> <lookup|verify> <requests> <path> [path...]";
+
+    // Workers used to warm up the server and connections in open-loop mode
+    private static final int WARMUP_CONCURRENCY = 4;
+
+    // Description of the first failed request, printed with the results
+    private static final AtomicReference<String> firstFailure = new AtomicReference<>();
+
+    public static void main(String[] args) throws Exception {
+        int rate = 0;
+        int argIndex = 0;
+        if (args.length > 0 && args[0].equals("--rate")) {
+            if (args.length < 2) {
+                exitWithUsage("Missing value for --rate");
+            }
+            rate = parsePositive(args[1], "requestsPerSecond");
+            argIndex = 2;
+        }
+        boolean openLoop = rate > 0;
+
+        int required = openLoop ? 4 : 5;
+        if (args.length - argIndex < required) {
+            exitWithUsage("Missing arguments");
+        }
+
+        String baseUrl = args[argIndex++];
+        String endpoint = args[argIndex++];
+        if (!endpoint.equals("lookup") && !endpoint.equals("verify")) {
+            exitWithUsage("Endpoint must be 'lookup' or 'verify'");
+        }
+        int requestCount = parsePositive(args[argIndex++], "requests");
+        int concurrency = openLoop ? WARMUP_CONCURRENCY : parsePositive(args[argIndex++], "concurrency");
+        String[] paths = Arrays.copyOfRange(args, argIndex, args.length);
+
+        URI[] uris = new URI[paths.length];
+        for (int i = 0; i < paths.length; i++) {
+            try {
+                uris[i] = URI.create(baseUrl + "/" + endpoint + "?path="
+                        + URLEncoder.encode(paths[i], StandardCharsets.UTF_8));
+            } catch (IllegalArgumentException e) {
+                exitWithUsage("Invalid base URL: " + baseUrl);
+            }
+        }
+
+        // HTTP/1.1 so connections are kept alive and reused by the client's pool
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+
+        // Warm up the JIT and the connection pool before measuring
+        int warmup = Math.min(requestCount, 1000);
+        runClosedLoop(client, uris, warmup, concurrency, new long[warmup]);
+        firstFailure.set(null);
+
+        long[] latencies = new long[requestCount];
+        long start = System.nanoTime();
+        int failures = openLoop
+                ? runOpenLoop(client, uris, requestCount, rate, latencies)
+                : runClosedLoop(client, uris, requestCount, concurrency, latencies);
+        long elapsed = System.nanoTime() - start;
+
+        Arrays.sort(latencies);
+        double seconds = elapsed / 1_000_000_000.0;
+        if (openLoop) {
+            System.out.printf("Requests:    %d (%d failed), open loop at %d requests/second%n", requestCount, failures, rate);
+            System.out.println("Latency is measured from each request's scheduled send time");
+        } else {
+            System.out.printf("Requests:    %d (%d failed) with %d concurrent workers (closed loop)%n",
+                    requestCount, failures, concurrency);
+        }
+        System.out.printf("Throughput:  %.0f requests/second%n", requestCount / seconds);
+        System.out.printf("Latency p50: %.3f ms%n", percentile(latencies, 50));
+        System.out.printf("Latency p95: %.3f ms%n", percentile(latencies, 95));
+        System.out.printf("Latency p99: %.3f ms%n", percentile(latencies, 99));
+        System.out.printf("Latency max: %.3f ms%n", latencies[latencies.length - 1] / 1_000_000.0);
+        if (firstFailure.get() != null) {
+            System.out.println("First failure: " + firstFailure.get());
+        }
+    }
+
+    /**
+     * Sends the requests from a fixed number of workers, each waiting for its answer
+     * before sending the next, and records each latency in nanoseconds.
+     *
+     * @return The number of requests that failed or did not return 200
+     */
+    private static int runClosedLoop(HttpClient client, URI[] uris, int requestCount, int concurrency, long[] latencies)
+            throws InterruptedException {
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger failures = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+
+        for (int w = 0; w < concurrency; w++) {
+            workers.execute(() -> {
+                int i;
+                while ((i = next.getAndIncrement()) < requestCount) {
+                    HttpRequest request = HttpRequest.newBuilder(uris[i % uris.length]).GET().build();
+                    long sent = System.nanoTime();
+                    try {
+                        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                        if (response.statusCode() != 200) {
+                            recordFailure(failures, "HTTP " + response.statusCode());
+                        }
+                    } catch (Exception e) {
+                        recordFailure(failures, e.toString());
+                    }
+                    latencies[i] = System.nanoTime() - sent;
+                }
+            });
+        }
+
+        workers.shutdown();
+        workers.awaitTermination(1, TimeUnit.HOURS);
+        return failures.get();
+    }
+
+    /**
+     * Sends the requests asynchronously on a fixed schedule (request i at start + i / rate),
+     * without waiting for earlier answers, and records each latency in nanoseconds from
+     * the scheduled send time. If sending falls behind schedule, the delay counts as latency.
+     *
+     * @return The number of requests that failed or did not return 200
+     */
+    private static int runOpenLoop(HttpClient client, URI[] uris, int requestCount, int rate, long[] latencies)
+            throws InterruptedException {
+        AtomicInteger failures = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(requestCount);
+        double intervalNanos = 1_000_000_000.0 / rate;
+        long start = System.nanoTime();
+
+        for (int i = 0; i < requestCount; i++) {
+            long scheduled = start + (long) (i * intervalNanos);
+            long wait = scheduled - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            int index = i;
+            HttpRequest request = HttpRequest.newBuilder(uris[i % uris.length]).GET().build();
+            client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                    .whenComplete((response, error) -> {
+                        latencies[index] = System.nanoTime() - scheduled;
+                        if (error != null) {
+                            recordFailure(failures, error.toString());
+                        } else if (response.statusCode() != 200) {
+                            recordFailure(failures, "HTTP " + response.statusCode());
+                        }
+                        done.countDown();
+                    });
+        }
+
+        done.await();
+        return failures.get();
+    }
+
+    private static void recordFailure(AtomicInteger failures, String description) {
+        failures.incrementAndGet();
+        firstFailure.compareAndSet(null, description);
+    }
+
+    private static int parsePositive(String value, String name) {
+        try {
+            int number = Integer.parseInt(value);
+            if (number > 0) {
+                return number;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        exitWithUsage(name + " must be a positive whole number: " + value);
+        return 0;
+    }
+
+    private static void exitWithUsage(String message) {
+        System.err.println(message);
+        System.err.println(USAGE);
+        System.exit(1);
+    }
+
+    private static double percentile(long[] sortedLatencies, double percentile) {
+        int index = (int) Math.ceil(percentile / 100.0 * sortedLatencies.length) - 1;
+        return sortedLatencies[Math.max(index, 0)] / 1_000_000.0;
+    }
+}
@@ -0,0 +1,496 @@
+package com.cis256.fileintegrity;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Small HTTP/JSON service that answers "is this file still intact?" over a shared
+ * HashManager, so other programs can check files without the JavaFX UI.
+ *
+ * Endpoints:
+ * - GET  /lookup?path=...  - is the path tracked, and its stored hash
+ * - GET  /verify?path=...  - re-hash a tracked file and compare with the stored hash
+ * - POST /verify/batch     - body is a JSON array of paths, answers are returned in order
+ * - GET  /known?hash=...   - does any tracked file have this SHA-256 hash (known-good check)
+ *
+ * Verifications of the same file that overlap in time share one hash computation.
+ * The service never registers new files; untracked paths are reported as UNKNOWN.
+ * Each request first reloads the HashManager if its storage files changed on disk,
+ * so hashes stored or updated by the GUI (a separate process) are seen right away.
+ * Connections are HTTP/1.1 keep-alive (handled by HttpServer) since every response
+ * has a Content-Length.
+ *
+ * HttpServer leaves Nagle's algorithm on by default, which delays small responses
+ * by ~40 ms each. main() turns it off; when embedding the server elsewhere, launch
+ * the JVM with -Dsun.net.httpserver.nodelay=true (the JDK reads it only once, when
+ * the first HttpServer in the JVM is created).
+ */
+public class HashCheckServer {
+
+    public static final int DEFAULT_PORT = 8256;
+
+    // Largest batch request body accepted (1 MB)
+    private static final int MAX_BODY_BYTES = 1024 * 1024;
+
+    private final HashManager hashManager;
+    private final HttpServer server;
+    private final ExecutorService requestExecutor;
+    private final ExecutorService hashExecutor;
+
+    // Hash computations currently running - Key: file path, Value: pending result
+    private final ConcurrentHashMap<String, CompletableFuture<FileDigest>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a server bound to the loopback address.
+     *
+     * @param hashManager The shared hash table to answer from
+     * @param port The port to listen on (0 picks a free port)
+     * @throws IOException If the port cannot be bound
+     */
+    public HashCheckServer(HashManager hashManager, int port) throws IOException {
+        this.hashManager = hashManager;
+        int threads = Runtime.getRuntime().availableProcessors();
+        this.requestExecutor = Executors.newFixedThreadPool(threads * 4);
+        this.hashExecutor = Executors.newFixedThreadPool(threads);
+
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/lookup", this::handleLookup);
+        server.createContext("/known", this::handleKnown);
+        server.createContext("/verify/batch", this::handleBatchVerify);
+        server.createContext("/verify", this::handleVerify);
+        server.setExecutor(requestExecutor);
+    }
+
+    /**
+     * Starts accepting requests.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stops the server, giving open exchanges up to one second to finish.
+     */
+    public void stop() {
+        server.stop(1);
+        requestExecutor.shutdown();
+        hashExecutor.shutdown();
+        try {
+            hashExecutor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Gets the port the server is listening on.
+     *
+     * @return The bound port
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void handleLookup(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"/lookup".equals(exchange.getRequestURI().getPath())) {
+                sendError(exchange, 404, "Not found");
+                return;
+            }
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                sendError(exchange, 405, "Use GET");
+                return;
+            }
+            String path = getPathParameter(exchange);
+            if (path == null) {
+                sendError(exchange, 400, "Missing 'path' query parameter");
+                return;
+            }
+
+            hashManager.reloadIfChanged();
+            String storedHash = hashManager.getStoredHash(path);
+            String json = "{\"path\":" + quote(path)
+                    + ",\"recognized\":" + (storedHash != null)
+                    + ",\"hash\":" + quote(storedHash) + "}";
+            sendJson(exchange, 200, json);
+        }
+    }
+
+    private void handleKnown(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"/known".equals(exchange.getRequestURI().getPath())) {
+                sendError(exchange, 404, "Not found");
+                return;
+            }
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                sendError(exchange, 405, "Use GET");
+                return;
+            }
+            String hash = getQueryParameter(exchange, "hash");
+            if (!HashUtility.isValidSHA256Hash(hash)) {
+                sendError(exchange, 400, "'hash' must be a 64-character SHA-256 hash");
+                return;
+            }
+
+            hashManager.reloadIfChanged();
+            String json = "{\"hash\":" + quote(hash)
+                    + ",\"known\":" + hashManager.isDigestKnown(hash) + "}";
+            sendJson(exchange, 200, json);
+        }
+    }
+
+    private void handleVerify(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"/verify".equals(exchange.getRequestURI().getPath())) {
+                sendError(exchange, 404, "Not found");
+                return;
+            }
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                sendError(exchange, 405, "Use GET");
+                return;
+            }
+            String path = getPathParameter(exchange);
+            if (path == null) {
+                sendError(exchange, 400, "Missing 'path' query parameter");
+                return;
+            }
+
+            hashManager.reloadIfChanged();
+            sendJson(exchange, 200, verify(path));
+        }
+    }
+
+    private void handleBatchVerify(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"/verify/batch".equals(exchange.getRequestURI().getPath())) {
+                sendError(exchange, 404, "Not found");
+                return;
+            }
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                sendError(exchange, 405, "Use POST");
+                return;
+            }
+
+            List<String> paths;
+            try {
+                paths = parseStringArray(readBody(exchange));
+            } catch (IllegalArgumentException e) {
+                sendError(exchange, 400, e.getMessage());
+                return;
+            }
+
+            hashManager.reloadIfChanged();
+
+            // Each distinct path is verified once, in parallel; duplicates reuse the answer
+            Map<String, CompletableFuture<String>> pending = new LinkedHashMap<>();
+            for (String path : new LinkedHashSet<>(paths)) {
+                pending.put(path, CompletableFuture.supplyAsync(() -> verify(path), hashExecutor));
+            }
+
+            StringBuilder json = new StringBuilder("{\"results\":[");
+            for (int i = 0; i < paths.size(); i++) {
+                if (i > 0) {
+                    json.append(',');
+                }
+                json.append(pending.get(paths.get(i)).join());
+            }
+            json.append("]}");
+            sendJson(exchange, 200, json.toString());
+        }
+    }
+
+    /**
+     * Verifies one tracked file and returns the JSON result object. Any failure to
+     * hash the file becomes an ERROR result for this path only, so the other results
+     * of a batch are still sent.
+     */
+    private String verify(String path) {
+        String storedHash = hashManager.getStoredHash(path);
+        if (storedHash == null) {
+            return "{\"path\":" + quote(path) + ",\"status\":\"UNKNOWN\"}";
+        }
+
+        FileDigest current;
+        try {
+            current = computeShared(path);
+        } catch (IOException | NoSuchAlgorithmException | RuntimeException e) {
+            String message = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            return "{\"path\":" + quote(path) + ",\"status\":\"ERROR\",\"error\":" + quote(message) + "}";
+        }
+
+        boolean intact = HashUtility.compareHashes(current.hash, storedHash);
+        StringBuilder json = new StringBuilder();
+        json.append("{\"path\":").append(quote(path))
+            .append(",\"status\":").append(intact ? "\"VERIFIED\"" : "\"MODIFIED\"")
+            .append(",\"storedHash\":").append(quote(storedHash))
+            .append(",\"currentHash\":").append(quote(current.hash));
+
+        Map<String, String> storedEntryHashes = hashManager.getStoredEntryHashes(path);
+        if (!intact && current.entryHashes != null && storedEntryHashes != null) {
+            json.append(",\"changedEntries\":[");
+            List<String> changes = ArchiveHasher.findChangedEntries(storedEntryHashes, current.entryHashes);
+            for (int i = 0; i < changes.size(); i++) {
+                if (i > 0) {
+                    json.append(',');
+                }
+                json.append(quote(changes.get(i)));
+            }
+            json.append(']');
+        } else if (!intact && current.entryError != null) {
+            json.append(",\"entryError\":").append(quote(current.entryError));
+        }
+        return json.append('}').toString();
+    }
+
+    /**
+     * Hashes a file, joining a computation for the same path that is already running.
+     */
+    private FileDigest computeShared(String path) throws IOException, NoSuchAlgorithmException {
+        CompletableFuture<FileDigest> future = new CompletableFuture<>();
+        CompletableFuture<FileDigest> existing = inFlight.putIfAbsent(path, future);
+
+        if (existing == null) {
+            try {
+                future.complete(computeDigest(path));
+            } catch (IOException | NoSuchAlgorithmException | RuntimeException e) {
+                future.completeExceptionally(e);
+            } finally {
+                inFlight.remove(path, future);
+            }
+        } else {
+            future = existing;
+        }
+
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof NoSuchAlgorithmException) {
+                throw (NoSuchAlgorithmException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw e;
+        }
+    }
+
+    private static FileDigest computeDigest(String path) throws IOException, NoSuchAlgorithmException {
+        if (ArchiveHasher.isArchive(path)) {
+            ArchiveHasher.ArchiveDigest digest = ArchiveHasher.computeArchiveHashes(path);
+            return new FileDigest(digest.getHash(), digest.getEntryHashes(), digest.getEntryError());
+        }
+        return new FileDigest(HashUtility.computeFileHash(path), null, null);
+    }
+
+    private static String getPathParameter(HttpExchange exchange) {
+        return getQueryParameter(exchange, "path");
+    }
+
+    private static String getQueryParameter(HttpExchange exchange, String name) {
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) {
+            return null;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0 && pair.substring(0, eq).equals(name)) {
+                String value = URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+                return value.isEmpty() ? null : value;
+            }
+        }
+        return null;
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] body = in.readNBytes(MAX_BODY_BYTES + 1);
+            if (body.length > MAX_BODY_BYTES) {
+                throw new IllegalArgumentException("Request body too large");
+            }
+            return new String(body, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        sendJson(exchange, status, "{\"error\":" + quote(message) + "}");
+    }
+
+    private static void sendJson(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Converts a string to a JSON string literal ("null" for null).
+     */
+    static String quote(String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder sb = new StringBuilder(value.length() + 2).append('"');
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    /**
+     * Parses a JSON array of strings, e.g. ["C:\\a.txt", "/home/b.jar"].
+     *
+     * @throws IllegalArgumentException If the text is not an array of strings
+     */
+    static List<String> parseStringArray(String json) {
+        List<String> values = new ArrayList<>();
+        int i = skipWhitespace(json, 0);
+        if (i >= json.length() || json.charAt(i) != '[') {
+            throw new IllegalArgumentException("Expected a JSON array of paths");
+        }
+        i = skipWhitespace(json, i + 1);
+        if (i < json.length() && json.charAt(i) == ']') {
+            i++;
+        } else {
+            while (true) {
+                if (i >= json.length() || json.charAt(i) != '"') {
+                    throw new IllegalArgumentException("Expected a string at position " + i);
+                }
+                StringBuilder sb = new StringBuilder();
+                i++;
+                while (true) {
+                    if (i >= json.length()) {
+                        throw new IllegalArgumentException("Unterminated string");
+                    }
+                    char c = json.charAt(i++);
+                    if (c == '"') {
+                        break;
+                    }
+                    if (c != '\\') {
+                        sb.append(c);
+                        continue;
+                    }
+                    if (i >= json.length()) {
+                        throw new IllegalArgumentException("Unterminated string");
+                    }
+                    char escaped = json.charAt(i++);
+                    switch (escaped) {
+                        case '"': case '\\': case '/': sb.append(escaped); break;
+                        case 'b': sb.append('\b'); break;
+                        case 'f': sb.append('\f'); break;
+                        case 'n': sb.append('\n'); break;
+                        case 'r': sb.append('\r'); break;
+                        case 't': sb.append('\t'); break;
+                        case 'u':
+                            if (i + 4 > json.length()) {
+                                throw new IllegalArgumentException("Invalid unicode escape");
+                            }
+                            int code = 0;
+                            for (int end = i + 4; i < end; i++) {
+                                // Character.digit rather than parseInt, which would accept a sign
+                                int digit = Character.digit(json.charAt(i), 16);
+                                if (digit < 0) {
+                                    throw new IllegalArgumentException("Invalid unicode escape");
+                                }
+                                code = code * 16 + digit;
+                            }
+                            sb.append((char) code);
+                            break;
+                        default:
+                            throw new IllegalArgumentException("Invalid escape: \\" + escaped);
+                    }
+                }
+                values.add(sb.toString());
+
+                i = skipWhitespace(json, i);
+                if (i < json.length() && json.charAt(i) == ',') {
+                    i = skipWhitespace(json, i + 1);
+                } else if (i < json.length() && json.charAt(i) == ']') {
+                    i++;
+                    break;
+                } else {
+                    throw new IllegalArgumentException("Expected ',' or ']' at position " + i);
+                }
+            }
+        }
+        if (skipWhitespace(json, i) != json.length()) {
+            throw new IllegalArgumentException("Unexpected content after array");
+        }
+        return values;
+    }
+
+    private static int skipWhitespace(String text, int i) {
+        while (i < text.length() && Character.isWhitespace(text.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Result of hashing one file: its SHA-256 hash, plus entry hashes for archives
+     * (or the reason they could not be read).
+     */
+    private static final class FileDigest {
+        final String hash;
+        final Map<String, String> entryHashes;
+        final String entryError;
+
+        FileDigest(String hash, Map<String, String> entryHashes, String entryError) {
+            this.hash = hash;
+            this.entryHashes = entryHashes;
+            this.entryError = entryError;
+        }
+    }
+
+    /**
+     * Runs the service on its own, without the JavaFX UI.
+     * Usage: HashCheckServer [port]
+     */
+    public static void main(String[] args) throws IOException {
+        // Must be set before the first HttpServer is created; see the class comment
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        HashCheckServer hashCheckServer = new HashCheckServer(new HashManager(), port);
+        Runtime.getRuntime().addShutdownHook(new Thread(hashCheckServer::stop));
+        hashCheckServer.start();
+        System.out.println("Hash check service listening on http://localhost:" + hashCheckServer.getPort());
+    }
+}
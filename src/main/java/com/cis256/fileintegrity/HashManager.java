@@ -1,8 +1,18 @@
 package com.cis256.fileintegrity;
 
 import java.io.*;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Manages a HashTable (HashMap) of file paths and their SHA-256 hashes.
@@ -10,21 +20,139 @@ import java.util.Map;
  * and retrieving file integrity information.
  * 
  * The HashTable is persisted to disk so hashes are remembered between sessions.
+ * Public methods are synchronized so one instance can be shared between threads
+ * (e.g. the request handlers of HashCheckServer).
+ * 
+ * Stored hashes are also indexed (hash -> number of files) so isDigestKnown()
+ * does not have to scan the table.
+ * 
+ * An optional Bloom filter over stored paths answers most "not stored" lookups
+ * without touching the HashTable. It is off by default: the HashTable is an
+ * in-memory HashMap, which answers faster than the filter (see BloomFilterBenchmark).
+ * When enabled, the filter is kept up to date as hashes are stored and is persisted
+ * next to the table. Every save of the table writes a new random generation id after
+ * it, and the filter file records the id of the table it was built from; a filter
+ * from any other table is rebuilt, never used.
+ * 
+ * Files are saved by writing a temporary file and renaming it over the old one,
+ * so another process never reads a half-written table. A process that only reads
+ * (e.g. a standalone HashCheckServer) calls reloadIfChanged() to pick up changes
+ * saved by another process such as the GUI.
  */
 public class HashManager {
     
     // HashMap data structure - Key: file path, Value: SHA-256 hash
     private HashMap<String, String> hashTable;
     
+    // HashMap of archive entry hashes - Key: archive path, Value: (entry name -> SHA-256 hash)
+    private HashMap<String, HashMap<String, String>> entryHashTable;
+    
     // File to persist the hash table
     private static final String HASH_STORAGE_FILE = "file_hashes.dat";
     
+    // File to persist the archive entry hashes
+    private static final String ENTRY_STORAGE_FILE = "archive_hashes.dat";
+    
+    // File to persist the Bloom filter
+    private static final String FILTER_STORAGE_FILE = "lookup_filters.dat";
+    
+    // Default false positive rate of the Bloom filter (1%)
+    public static final double DEFAULT_FALSE_POSITIVE_RATE = 0.01;
+    
+    // Smallest number of entries the Bloom filter is sized for
+    private static final int MIN_FILTER_CAPACITY = 1024;
+    
+    // Bloom filter over stored file paths (only used when useFilter is set)
+    private BloomFilter pathFilter;
+    private final double falsePositiveRate;
+    
+    // Random id written with each save of the hash table (0 = unknown, e.g. an older file)
+    private long tableGeneration;
+    
+    // Folder holding the storage files
+    private final Path storageDirectory;
+    
+    // Index of stored hashes - Key: lowercase SHA-256 hash, Value: number of files with that hash
+    private HashMap<String, Integer> digestCounts = new HashMap<>();
+    
+    // Whether the Bloom filter is used, chosen by the constructor
+    private final boolean useFilter;
+    
+    // File identity, modification time and size of the storage files when they were last loaded or saved
+    private Object[] loadedStamp;
+    
     /**
      * Constructor - initializes the HashMap and loads existing hashes from disk
      */
     public HashManager() {
+        this(Paths.get(""));
+    }
+    
+    /**
+     * Constructor - initializes the HashMap and loads existing hashes from disk,
+     * and enables the lookup Bloom filter with the given false positive rate
+     * 
+     * @param falsePositiveRate Bloom filter false positive rate, e.g. 0.01 for 1%
+     */
+    public HashManager(double falsePositiveRate) {
+        this(Paths.get(""), falsePositiveRate);
+    }
+    
+    /**
+     * Constructor - initializes the HashMap and loads existing hashes from the
+     * storage files in the given folder instead of the working directory
+     * 
+     * @param storageDirectory Folder holding file_hashes.dat and the other storage files
+     */
+    public HashManager(Path storageDirectory) {
+        this(storageDirectory, DEFAULT_FALSE_POSITIVE_RATE, false);
+    }
+    
+    /**
+     * Constructor - initializes the HashMap and loads existing hashes from the
+     * storage files in the given folder, and enables the lookup Bloom filter
+     * 
+     * @param storageDirectory Folder holding file_hashes.dat and the other storage files
+     * @param falsePositiveRate Bloom filter false positive rate, e.g. 0.01 for 1%
+     */
+    public HashManager(Path storageDirectory, double falsePositiveRate) {
+        this(storageDirectory, falsePositiveRate, true);
+    }
+    
+    private HashManager(Path storageDirectory, double falsePositiveRate, boolean useFilter) {
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("falsePositiveRate must be between 0 and 1: " + falsePositiveRate);
+        }
+        this.storageDirectory = storageDirectory;
+        this.falsePositiveRate = falsePositiveRate;
+        this.useFilter = useFilter;
         hashTable = new HashMap<>();
+        entryHashTable = new HashMap<>();
+        loadedStamp = storageStamp();
         loadHashTable();
+        loadEntryHashTable();
+        if (useFilter) {
+            loadFilter();
+        }
+    }
+    
+    /**
+     * Reloads the hash table from disk if the storage files were changed since they
+     * were last loaded or saved by this instance (e.g. by the GUI running in another process).
+     * If a file cannot be read, the current contents are kept and the reload is retried next time.
+     */
+    public synchronized void reloadIfChanged() {
+        Object[] stamp = storageStamp();
+        if (Arrays.equals(stamp, loadedStamp)) {
+            return;
+        }
+        // Both files are always attempted (non-short-circuit &); a failed read keeps the old contents
+        if (loadHashTable() & loadEntryHashTable()) {
+            loadedStamp = stamp;
+        }
+        if (useFilter) {
+            loadFilter();
+        }
     }
     
     /**
@@ -33,17 +161,35 @@ public class HashManager {
      * @param filePath The file path to check
      * @return true if file is in the hash table, false otherwise
      */
-    public boolean isFileRecognized(String filePath) {
+    public synchronized boolean isFileRecognized(String filePath) {
+        // Bloom filter miss means the path is definitely not stored (a null path is never in the filter)
+        if (useFilter && filePath != null && !pathFilter.mightContain(filePath)) {
+            return false;
+        }
         return hashTable.containsKey(filePath);
     }
     
+    /**
+     * Checks if any stored file has the given SHA-256 hash (e.g. checking a file
+     * against a known-good set of hashes), using the index of stored hashes
+     * 
+     * @param hash The SHA-256 hash to look for
+     * @return true if some tracked file has this hash, false otherwise
+     */
+    public synchronized boolean isDigestKnown(String hash) {
+        if (hash == null) {
+            return false;
+        }
+        return digestCounts.containsKey(hash.toLowerCase(Locale.ROOT));
+    }
+    
     /**
      * Gets the stored hash for a given file path
      * 
      * @param filePath The file path
      * @return The stored SHA-256 hash, or null if not found
      */
-    public String getStoredHash(String filePath) {
+    public synchronized String getStoredHash(String filePath) {
         return hashTable.get(filePath);
     }
     
@@ -53,8 +199,20 @@ public class HashManager {
      * @param filePath The file path
      * @param hash The SHA-256 hash to store
      */
-    public void storeHash(String filePath, String hash) {
-        hashTable.put(filePath, hash);
+    public synchronized void storeHash(String filePath, String hash) {
+        putHash(filePath, hash);
+        saveHashTable();
+    }
+    
+    /**
+     * Stores many file hashes at once, saving to disk only once at the end
+     * 
+     * @param hashes Map of file path to SHA-256 hash
+     */
+    public synchronized void storeHashes(Map<String, String> hashes) {
+        for (Map.Entry<String, String> entry : hashes.entrySet()) {
+            putHash(entry.getKey(), entry.getValue());
+        }
         saveHashTable();
     }
     
@@ -64,19 +222,53 @@ public class HashManager {
      * @param filePath The file path
      * @param newHash The new SHA-256 hash
      */
-    public void updateHash(String filePath, String newHash) {
-        hashTable.put(filePath, newHash);
+    public synchronized void updateHash(String filePath, String newHash) {
+        putHash(filePath, newHash);
         saveHashTable();
     }
     
+    /**
+     * Stores the per-entry hashes of an archive and saves to disk
+     * 
+     * @param filePath The archive file path
+     * @param entryHashes Map of entry name to SHA-256 hash, or null to drop the stored
+     *                    entry hashes (e.g. the archive's entries could not be read)
+     */
+    public synchronized void storeEntryHashes(String filePath, Map<String, String> entryHashes) {
+        if (entryHashes == null) {
+            if (entryHashTable.remove(filePath) != null) {
+                saveEntryHashTable();
+            }
+            return;
+        }
+        entryHashTable.put(filePath, new HashMap<>(entryHashes));
+        saveEntryHashTable();
+    }
+    
+    /**
+     * Gets the stored per-entry hashes of an archive
+     * 
+     * @param filePath The archive file path
+     * @return Copy of the map of entry name to SHA-256 hash, or null if not found
+     */
+    public synchronized Map<String, String> getStoredEntryHashes(String filePath) {
+        HashMap<String, String> entries = entryHashTable.get(filePath);
+        return entries == null ? null : new HashMap<>(entries);
+    }
+    
     /**
      * Removes a file from the hash table
      * 
      * @param filePath The file path to remove
      * @return true if removed, false if not found
      */
-    public boolean removeHash(String filePath) {
-        if (hashTable.remove(filePath) != null) {
+    public synchronized boolean removeHash(String filePath) {
+        if (entryHashTable.remove(filePath) != null) {
+            saveEntryHashTable();
+        }
+        String removedHash = hashTable.remove(filePath);
+        if (removedHash != null) {
+            removeDigest(removedHash);
             saveHashTable();
             return true;
         }
@@ -88,7 +280,7 @@ public class HashManager {
      * 
      * @return Array of all file paths in the hash table
      */
-    public String[] getAllFilePaths() {
+    public synchronized String[] getAllFilePaths() {
         return hashTable.keySet().toArray(new String[0]);
     }
     
@@ -97,42 +289,291 @@ public class HashManager {
      * 
      * @return The size of the hash table
      */
-    public int getFileCount() {
+    public synchronized int getFileCount() {
         return hashTable.size();
     }
     
     /**
      * Clears all entries from the hash table
      */
-    public void clearAll() {
+    public synchronized void clearAll() {
         hashTable.clear();
+        digestCounts.clear();
+        entryHashTable.clear();
+        if (useFilter) {
+            rebuildFilter();
+        }
         saveHashTable();
+        saveEntryHashTable();
     }
     
     /**
-     * Saves the hash table to disk (serialization)
+     * Puts a hash in the hash table and keeps the hash index and Bloom filter in step.
+     * Like the HashMap itself, a null path or hash is accepted; it is just not indexed.
+     */
+    private void putHash(String filePath, String hash) {
+        String oldHash = hashTable.put(filePath, hash);
+        removeDigest(oldHash);
+        addDigest(hash);
+        if (useFilter && filePath != null) {
+            addToFilter(filePath);
+        }
+    }
+    
+    private void addDigest(String hash) {
+        if (hash != null) {
+            digestCounts.merge(hash.toLowerCase(Locale.ROOT), 1, Integer::sum);
+        }
+    }
+    
+    private void removeDigest(String hash) {
+        if (hash == null) {
+            return;
+        }
+        String key = hash.toLowerCase(Locale.ROOT);
+        Integer count = digestCounts.get(key);
+        if (count == null || count <= 1) {
+            digestCounts.remove(key);
+        } else {
+            digestCounts.put(key, count - 1);
+        }
+    }
+    
+    /**
+     * Rebuilds the hash index from the hash table
+     */
+    private void rebuildDigestIndex() {
+        digestCounts = new HashMap<>();
+        for (String hash : hashTable.values()) {
+            addDigest(hash);
+        }
+    }
+    
+    /**
+     * Adds a stored path to the Bloom filter, rebuilding it larger once it holds
+     * more entries than it was sized for
+     */
+    private void addToFilter(String filePath) {
+        pathFilter.put(filePath);
+        if (pathFilter.isOverCapacity()) {
+            rebuildFilter();
+        }
+    }
+    
+    /**
+     * Recreates the Bloom filter from the hash table. This also drops paths that
+     * were removed, since a Bloom filter cannot remove values itself.
+     */
+    private void rebuildFilter() {
+        int capacity = Math.max(MIN_FILTER_CAPACITY, hashTable.size() * 2);
+        pathFilter = new BloomFilter(capacity, falsePositiveRate);
+        for (String filePath : hashTable.keySet()) {
+            if (filePath != null) {
+                pathFilter.put(filePath);
+            }
+        }
+    }
+    
+    /**
+     * Saves the hash table to disk (serialization), along with the Bloom filter
+     * (when used) so it stays in sync with it
      */
     private void saveHashTable() {
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(HASH_STORAGE_FILE))) {
+        long generation = newGeneration();
+        File tempFile = storageFile(HASH_STORAGE_FILE + ".tmp");
+        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(tempFile))) {
             oos.writeObject(hashTable);
+            // Written after the table so older versions can still read the file
+            oos.writeLong(generation);
         } catch (IOException e) {
             System.err.println("Error saving hash table: " + e.getMessage());
+            return;
         }
+        try {
+            replaceFile(tempFile, HASH_STORAGE_FILE);
+            tableGeneration = generation;
+        } catch (IOException e) {
+            System.err.println("Error saving hash table: " + e.getMessage());
+            return;
+        }
+        loadedStamp = storageStamp();
+        if (useFilter) {
+            saveFilter();
+        }
+    }
+    
+    private static long newGeneration() {
+        long generation;
+        do {
+            generation = ThreadLocalRandom.current().nextLong();
+        } while (generation == 0);
+        return generation;
+    }
+    
+    private File storageFile(String fileName) {
+        return storageDirectory.resolve(fileName).toFile();
     }
     
     /**
-     * Loads the hash table from disk (deserialization)
+     * Moves a fully written temporary file over a storage file, atomically where
+     * the file system supports it
      */
-    @SuppressWarnings("unchecked")
-    private void loadHashTable() {
-        File file = new File(HASH_STORAGE_FILE);
+    private void replaceFile(File tempFile, String fileName) throws IOException {
+        Path target = storageFile(fileName).toPath();
+        try {
+            Files.move(tempFile.toPath(), target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile.toPath(), target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+    
+    /**
+     * Gets the file key (e.g. device and inode), creation time, modification time and
+     * size of the storage files (null for a missing file).
+     * 
+     * Every save renames a new file into place, so the file key changes even when
+     * two saves land in the same modification time tick (up to 2 s on FAT or SMB)
+     * and leave the size unchanged, e.g. when a stored hash is updated. File systems
+     * without file keys (e.g. on Windows) fall back to the times and size.
+     */
+    private Object[] storageStamp() {
+        Object[] stamp = new Object[8];
+        String[] files = { HASH_STORAGE_FILE, ENTRY_STORAGE_FILE };
+        for (int i = 0; i < files.length; i++) {
+            Path path = storageFile(files[i]).toPath();
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                stamp[i * 4] = attributes.fileKey();
+                stamp[i * 4 + 1] = attributes.creationTime();
+                stamp[i * 4 + 2] = attributes.lastModifiedTime();
+                stamp[i * 4 + 3] = attributes.size();
+            } catch (NoSuchFileException e) {
+                // Missing file stays null
+            } catch (IOException e) {
+                stamp[i * 4] = "unreadable";
+            }
+        }
+        return stamp;
+    }
+    
+    /**
+     * Saves the Bloom filter to disk (serialization), tagged with the generation id
+     * of the hash table it was built from
+     */
+    private void saveFilter() {
+        File tempFile = storageFile(FILTER_STORAGE_FILE + ".tmp");
+        try (ObjectOutputStream oos = new ObjectOutputStream(
+                new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+            oos.writeLong(tableGeneration);
+            oos.writeObject(pathFilter);
+        } catch (IOException e) {
+            System.err.println("Error saving lookup filter: " + e.getMessage());
+            return;
+        }
+        try {
+            replaceFile(tempFile, FILTER_STORAGE_FILE);
+        } catch (IOException e) {
+            System.err.println("Error saving lookup filter: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Loads the Bloom filter from disk (deserialization). It is rebuilt from the
+     * hash table instead if the file is missing, was built from a different save of the
+     * table (e.g. after a crash between the two writes, or a restored backup of the table),
+     * or uses another false positive rate.
+     */
+    private void loadFilter() {
+        File file = storageFile(FILTER_STORAGE_FILE);
         if (file.exists()) {
-            try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(file))) {
-                hashTable = (HashMap<String, String>) ois.readObject();
-            } catch (IOException | ClassNotFoundException e) {
-                System.err.println("Error loading hash table: " + e.getMessage());
-                hashTable = new HashMap<>();
+            try (ObjectInputStream ois = new ObjectInputStream(
+                    new BufferedInputStream(new FileInputStream(file)))) {
+                long savedGeneration = ois.readLong();
+                BloomFilter savedPathFilter = (BloomFilter) ois.readObject();
+                if (tableGeneration != 0 && savedGeneration == tableGeneration
+                        && savedPathFilter.getFalsePositiveRate() == falsePositiveRate) {
+                    pathFilter = savedPathFilter;
+                    return;
+                }
+            } catch (IOException | ClassNotFoundException | ClassCastException e) {
+                System.err.println("Error loading lookup filter: " + e.getMessage());
+            }
+        }
+        rebuildFilter();
+    }
+    
+    /**
+     * Loads the hash table from disk (deserialization). A missing file means an
+     * empty table; if the file cannot be read, the current table is kept.
+     * 
+     * @return true if the table was loaded, false if reading failed
+     */
+    @SuppressWarnings("unchecked")
+    private boolean loadHashTable() {
+        File file = storageFile(HASH_STORAGE_FILE);
+        if (!file.exists()) {
+            hashTable = new HashMap<>();
+            tableGeneration = 0;
+            rebuildDigestIndex();
+            return true;
+        }
+        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(file))) {
+            HashMap<String, String> loadedTable = (HashMap<String, String>) ois.readObject();
+            long generation;
+            try {
+                generation = ois.readLong();
+            } catch (EOFException e) {
+                // Saved by an older version without a generation id
+                generation = 0;
             }
+            hashTable = loadedTable;
+            tableGeneration = generation;
+            rebuildDigestIndex();
+            return true;
+        } catch (IOException | ClassNotFoundException e) {
+            System.err.println("Error loading hash table: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * Saves the archive entry hashes to disk (serialization)
+     */
+    private void saveEntryHashTable() {
+        File tempFile = storageFile(ENTRY_STORAGE_FILE + ".tmp");
+        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(tempFile))) {
+            oos.writeObject(entryHashTable);
+        } catch (IOException e) {
+            System.err.println("Error saving archive entry hashes: " + e.getMessage());
+            return;
+        }
+        try {
+            replaceFile(tempFile, ENTRY_STORAGE_FILE);
+        } catch (IOException e) {
+            System.err.println("Error saving archive entry hashes: " + e.getMessage());
+        }
+        loadedStamp = storageStamp();
+    }
+    
+    /**
+     * Loads the archive entry hashes from disk (deserialization). A missing file means
+     * no entry hashes; if the file cannot be read, the current entry hashes are kept.
+     * 
+     * @return true if the entry hashes were loaded, false if reading failed
+     */
+    @SuppressWarnings("unchecked")
+    private boolean loadEntryHashTable() {
+        File file = storageFile(ENTRY_STORAGE_FILE);
+        if (!file.exists()) {
+            entryHashTable = new HashMap<>();
+            return true;
+        }
+        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(file))) {
+            entryHashTable = (HashMap<String, HashMap<String, String>>) ois.readObject();
+            return true;
+        } catch (IOException | ClassNotFoundException e) {
+            System.err.println("Error loading archive entry hashes: " + e.getMessage());
+            return false;
         }
     }
     
@@ -142,7 +583,7 @@ public class HashManager {
      * @return String representation showing all entries
      */
     @Override
-    public String toString() {
+    public synchronized String toString() {
         StringBuilder sb = new StringBuilder();
         sb.append("Hash Table Contents (").append(hashTable.size()).append(" entries):\n");
         sb.append("=".repeat(60)).append("\n");
@@ -153,6 +594,10 @@ public class HashManager {
             for (Map.Entry<String, String> entry : hashTable.entrySet()) {
                 sb.append("File: ").append(entry.getKey()).append("\n");
                 sb.append("Hash: ").append(entry.getValue()).append("\n");
+                HashMap<String, String> entries = entryHashTable.get(entry.getKey());
+                if (entries != null) {
+                    sb.append("Archive entries: ").append(entries.size()).append("\n");
+                }
                 sb.append("-".repeat(60)).append("\n");
             }
         }
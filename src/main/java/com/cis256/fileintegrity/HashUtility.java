@@ -62,7 +62,7 @@ public class HashUtility {
      * @param bytes The byte array to convert
      * @return The hexadecimal string representation
      */
-    private static String bytesToHex(byte[] bytes) {
+    static String bytesToHex(byte[] bytes) {
         StringBuilder hexString = new StringBuilder();
         for (byte b : bytes) {
             String hex = Integer.toHexString(0xff & b);
@@ -1,6 +1,8 @@
 module com.cis256.fileintegrity {
     requires javafx.controls;
     requires javafx.fxml;
+    requires jdk.httpserver;
+    requires java.net.http;
     
     exports com.cis256.fileintegrity;
 }
@@ -0,0 +1,250 @@
+package com.cis256.fileintegrity;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests of the TAR parser in ArchiveHasher, using small archives built in memory.
+ */
+class ArchiveHasherTest {
+
+    private static final byte[] HELLO = "hello".getBytes(StandardCharsets.US_ASCII);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void hashesRegularEntries() throws Exception {
+        byte[] tar = tar(entry("a.txt", '0', HELLO), entry("b.txt", '\0', new byte[0]), entry("c.txt", '7', HELLO));
+
+        Map<String, String> hashes = ArchiveHasher.readTarEntries(new ByteArrayInputStream(tar));
+
+        assertEquals(Map.of("a.txt", sha256(HELLO), "b.txt", sha256(new byte[0]), "c.txt", sha256(HELLO)), hashes);
+    }
+
+    @Test
+    void skipsDirectoriesAndLinks() throws Exception {
+        byte[] tar = tar(entry("dir/", '5', new byte[0]), entry("link", '2', new byte[0]), entry("dir/a.txt", '0', HELLO));
+
+        Map<String, String> hashes = ArchiveHasher.readTarEntries(new ByteArrayInputStream(tar));
+
+        assertEquals(Map.of("dir/a.txt", sha256(HELLO)), hashes);
+    }
+
+    @Test
+    void joinsUstarPrefixWithName() throws Exception {
+        byte[] header = header("a.txt", '0', HELLO.length);
+        put(header, 345, "some/folder");
+        byte[] tar = tar(concat(header, data(HELLO)));
+
+        Map<String, String> hashes = ArchiveHasher.readTarEntries(new ByteArrayInputStream(tar));
+
+        assertEquals(Map.of("some/folder/a.txt", sha256(HELLO)), hashes);
+    }
+
+    @Test
+    void appliesPaxPathAndSize() throws Exception {
+        byte[] content = "hello, pax".getBytes(StandardCharsets.US_ASCII);
+        byte[] pax = paxRecords("path=a/very/long/name.txt", "size=" + content.length);
+        // The ustar header itself says 0 bytes; the PAX size wins
+        byte[] tar = tar(entry("PaxHeader", 'x', pax), concat(header("short.txt", '0', 0), data(content)),
+                entry("next.txt", '0', HELLO));
+
+        Map<String, String> hashes = ArchiveHasher.readTarEntries(new ByteArrayInputStream(tar));
+
+        // 'x' only applies to the entry right after it
+        assertEquals(Map.of("a/very/long/name.txt", sha256(content), "next.txt", sha256(HELLO)), hashes);
+    }
+
+    @Test
+    void appliesGlobalPaxHeadersToEveryEntry() throws Exception {
+        byte[] tar = tar(entry("GlobalHead", 'g', paxRecords("path=same.txt")),
+                entry("a.txt", '0', HELLO), entry("b.txt", '0', HELLO));
+
+        Map<String, String> hashes = ArchiveHasher.readTarEntries(new ByteArrayInputStream(tar));
+
+        assertEquals(Map.of("same.txt", sha256(HELLO)), hashes);
+    }
+
+    @Test
+    void usesGnuLongName() throws Exception {
+        String longName = "folder/".repeat(20) + "file.txt";
+        byte[] tar = tar(entry("././@LongLink", 'L', (longName + "\0").getBytes(StandardCharsets.UTF_8)),
+                entry(longName.substring(0, 99), '0', HELLO));
+
+        Map<String, String> hashes = ArchiveHasher.readTarEntries(new ByteArrayInputStream(tar));
+
+        assertEquals(Map.of(longName, sha256(HELLO)), hashes);
+    }
+
+    @Test
+    void readsBase256Size() throws Exception {
+        byte[] header = header("a.txt", '0', 0);
+        Arrays.fill(header, 124, 136, (byte) 0);
+        header[124] = (byte) 0x80;
+        header[135] = (byte) HELLO.length;
+        byte[] tar = tar(concat(header, data(HELLO)));
+
+        Map<String, String> hashes = ArchiveHasher.readTarEntries(new ByteArrayInputStream(tar));
+
+        assertEquals(Map.of("a.txt", sha256(HELLO)), hashes);
+    }
+
+    @Test
+    void rejectsNegativeBase256Size() {
+        byte[] header = header("a.txt", '0', 0);
+        Arrays.fill(header, 124, 136, (byte) 0xFF);
+
+        assertThrows(IOException.class, () -> ArchiveHasher.readTarEntries(new ByteArrayInputStream(tar(header))));
+    }
+
+    @Test
+    void rejectsNegativeOctalSize() {
+        byte[] header = header("a.txt", '0', 0);
+        put(header, 124, "-0000000001");
+
+        assertThrows(IOException.class, () -> ArchiveHasher.readTarEntries(new ByteArrayInputStream(tar(header))));
+    }
+
+    @Test
+    void rejectsNegativePaxSize() {
+        byte[] tar = tar(entry("PaxHeader", 'x', paxRecords("size=-1234")), entry("a.txt", '0', HELLO));
+
+        assertThrows(IOException.class, () -> ArchiveHasher.readTarEntries(new ByteArrayInputStream(tar)));
+    }
+
+    @Test
+    void rejectsOversizedMetadataEntry() {
+        // Claims a 1 GB long name; must fail before allocating it
+        byte[] tar = tar(header("././@LongLink", 'L', 07777777777L));
+
+        assertThrows(IOException.class, () -> ArchiveHasher.readTarEntries(new ByteArrayInputStream(tar)));
+    }
+
+    @Test
+    void rejectsTruncatedHeader() {
+        byte[] tar = Arrays.copyOf(tar(entry("a.txt", '0', HELLO)), 300);
+
+        assertThrows(EOFException.class, () -> ArchiveHasher.readTarEntries(new ByteArrayInputStream(tar)));
+    }
+
+    @Test
+    void rejectsTruncatedEntry() {
+        byte[] tar = Arrays.copyOf(tar(entry("a.txt", '0', new byte[2000])), 512 + 1000);
+
+        assertThrows(EOFException.class, () -> ArchiveHasher.readTarEntries(new ByteArrayInputStream(tar)));
+    }
+
+    @Test
+    void stillHashesContainerWhenEntriesCannotBeParsed() throws Exception {
+        byte[] tar = Arrays.copyOf(tar(entry("a.txt", '0', new byte[2000])), 512 + 1000);
+        Path file = tempDir.resolve("truncated.tar");
+        Files.write(file, tar);
+
+        ArchiveHasher.ArchiveDigest digest = ArchiveHasher.computeArchiveHashes(file.toString());
+
+        assertEquals(sha256(tar), digest.getHash());
+        assertNull(digest.getEntryHashes());
+        assertNotNull(digest.getEntryError());
+    }
+
+    @Test
+    void hashesContainerAndEntriesInOnePass() throws Exception {
+        byte[] tar = tar(entry("a.txt", '0', HELLO));
+        Path file = tempDir.resolve("good.tar");
+        Files.write(file, tar);
+
+        ArchiveHasher.ArchiveDigest digest = ArchiveHasher.computeArchiveHashes(file.toString());
+
+        assertEquals(sha256(tar), digest.getHash());
+        assertEquals(Map.of("a.txt", sha256(HELLO)), digest.getEntryHashes());
+        assertNull(digest.getEntryError());
+    }
+
+    /**
+     * Builds a ustar header block with an octal size field.
+     */
+    private static byte[] header(String name, char type, long size) {
+        byte[] header = new byte[512];
+        put(header, 0, name);
+        put(header, 100, "0000644");
+        put(header, 124, String.format("%011o", size));
+        header[156] = (byte) type;
+        put(header, 257, "ustar");
+        put(header, 263, "00");
+
+        // Checksum: sum of all header bytes with the checksum field read as spaces
+        Arrays.fill(header, 148, 156, (byte) ' ');
+        int checksum = 0;
+        for (byte b : header) {
+            checksum += b & 0xFF;
+        }
+        put(header, 148, String.format("%06o\0 ", checksum));
+        return header;
+    }
+
+    private static byte[] entry(String name, char type, byte[] content) {
+        return concat(header(name, type, content.length), data(content));
+    }
+
+    /**
+     * Pads entry data to a whole number of 512-byte blocks.
+     */
+    private static byte[] data(byte[] content) {
+        return Arrays.copyOf(content, (content.length + 511) / 512 * 512);
+    }
+
+    /**
+     * Joins entries and appends the two zero blocks that end an archive.
+     */
+    private static byte[] tar(byte[]... entries) {
+        return concat(concat(entries), new byte[1024]);
+    }
+
+    /**
+     * Builds PAX records ("<length> key=value\n"), where length counts the whole record.
+     */
+    private static byte[] paxRecords(String... keyValues) {
+        StringBuilder records = new StringBuilder();
+        for (String keyValue : keyValues) {
+            int length = keyValue.length() + 3;
+            while (String.valueOf(length).length() + keyValue.length() + 2 != length) {
+                length++;
+            }
+            records.append(length).append(' ').append(keyValue).append('\n');
+        }
+        return records.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void put(byte[] header, int offset, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        System.arraycopy(bytes, 0, header, offset, bytes.length);
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] part : parts) {
+            out.writeBytes(part);
+        }
+        return out.toByteArray();
+    }
+
+    private static String sha256(byte[] bytes) throws Exception {
+        return HashUtility.bytesToHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+    }
+}
@@ -0,0 +1,80 @@
+package com.cis256.fileintegrity;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of the JSON handling in HashCheckServer (batch request bodies and response strings).
+ */
+class HashCheckServerTest {
+
+    @Test
+    void parsesEmptyArray() {
+        assertEquals(List.of(), HashCheckServer.parseStringArray("[]"));
+        assertEquals(List.of(), HashCheckServer.parseStringArray(" \n[ \t] \r\n"));
+    }
+
+    @Test
+    void parsesPathsInOrderWithDuplicates() {
+        assertEquals(List.of("/data/a.txt", "/data/app.jar", "/data/a.txt"),
+                HashCheckServer.parseStringArray("[\"/data/a.txt\", \"/data/app.jar\" ,\"/data/a.txt\"]"));
+    }
+
+    @Test
+    void parsesEscapes() {
+        assertEquals(List.of("C:\\a.txt", "say \"hi\"", "a/b", "\b\f\n\r\t"),
+                HashCheckServer.parseStringArray("[\"C:\\\\a.txt\", \"say \\\"hi\\\"\", \"a\\/b\", \"\\b\\f\\n\\r\\t\"]"));
+    }
+
+    @Test
+    void parsesUnicodeEscapes() {
+        assertEquals(List.of("é.txt", "\u20AC", "\uD83D\uDE00"),
+                HashCheckServer.parseStringArray("[\"\\u00e9.txt\", \"\\u20AC\", \"\\ud83d\\ude00\"]"));
+    }
+
+    @Test
+    void keepsNonAsciiCharactersAsIs() {
+        assertEquals(List.of("/home/jürgen/файл.txt"), HashCheckServer.parseStringArray("[\"/home/jürgen/файл.txt\"]"));
+    }
+
+    @Test
+    void rejectsInvalidUnicodeEscapes() {
+        assertThrows(IllegalArgumentException.class, () -> HashCheckServer.parseStringArray("[\"\\u12\"]"));
+        assertThrows(IllegalArgumentException.class, () -> HashCheckServer.parseStringArray("[\"\\u12G4\"]"));
+        assertThrows(IllegalArgumentException.class, () -> HashCheckServer.parseStringArray("[\"\\u+041\"]"));
+    }
+
+    @Test
+    void rejectsUnknownEscape() {
+        assertThrows(IllegalArgumentException.class, () -> HashCheckServer.parseStringArray("[\"\\x41\"]"));
+    }
+
+    @Test
+    void rejectsTrailingContent() {
+        assertThrows(IllegalArgumentException.class, () -> HashCheckServer.parseStringArray("[\"a\"] x"));
+        assertThrows(IllegalArgumentException.class, () -> HashCheckServer.parseStringArray("[][]"));
+    }
+
+    @Test
+    void rejectsMalformedArrays() {
+        assertThrows(IllegalArgumentException.class, () -> HashCheckServer.parseStringArray(""));
+        assertThrows(IllegalArgumentException.class, () -> HashCheckServer.parseStringArray("\"a\""));
+        assertThrows(IllegalArgumentException.class, () -> HashCheckServer.parseStringArray("[\"a\""));
+        assertThrows(IllegalArgumentException.class, () -> HashCheckServer.parseStringArray("[\"a\",]"));
+        assertThrows(IllegalArgumentException.class, () -> HashCheckServer.parseStringArray("[\"a\" \"b\"]"));
+        assertThrows(IllegalArgumentException.class, () -> HashCheckServer.parseStringArray("[\"unterminated]"));
+        assertThrows(IllegalArgumentException.class, () -> HashCheckServer.parseStringArray("[\"a\\"));
+        assertThrows(IllegalArgumentException.class, () -> HashCheckServer.parseStringArray("[1, 2]"));
+        assertThrows(IllegalArgumentException.class, () -> HashCheckServer.parseStringArray("[null]"));
+    }
+
+    @Test
+    void quoteRoundTripsThroughParser() {
+        String path = "C:\\dir\\\"odd\"\nname\u0001.txt";
+        assertEquals(List.of(path), HashCheckServer.parseStringArray("[" + HashCheckServer.quote(path) + "]"));
+        assertEquals("null", HashCheckServer.quote(null));
+    }
+}